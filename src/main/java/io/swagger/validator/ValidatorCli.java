@@ -0,0 +1,405 @@
+package io.swagger.validator;
+
+import io.swagger.util.Json;
+import io.swagger.validator.models.BulkValidationReport;
+import io.swagger.validator.models.FileValidationResult;
+import io.swagger.validator.models.SchemaValidationError;
+import io.swagger.validator.models.ValidationResponse;
+import io.swagger.validator.services.ValidatorService;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.io.IOUtils;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.BufferedInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Validates every spec in a set of files, directories and zip/tar archives without going through HTTP.
+ * Files are validated in parallel with one shared {@link ValidatorService} and the bundled schema.  At most
+ * two specs per thread are held in memory waiting for validation, so archives are streamed rather than
+ * read up front.
+ * <p>
+ * Usage: {@code ValidatorCli [--format json|junit] [--output file] [--threads n] path...}
+ * <p>
+ * Exits with 0 when every spec is valid, 1 when any spec is invalid or could not be read or validated
+ * (reported as an error for that file), and 2 on bad arguments or when a path given on the command line
+ * can't be opened, e.g. it doesn't exist or is a corrupt archive.
+ */
+public class ValidatorCli {
+    static final int EXIT_VALID = 0;
+    static final int EXIT_INVALID = 1;
+    static final int EXIT_ERROR = 2;
+    static final String SUITE_NAME = "swagger-validator";
+
+    private final ValidatorService service;
+    private final ExecutorService executor;
+    private final Semaphore pending;
+    private final List<Future<FileValidationResult>> results = new ArrayList<Future<FileValidationResult>>();
+    private final List<String> names = new ArrayList<String>();
+
+    ValidatorCli(int threads) {
+        service = new ValidatorService();
+        service.setFetchSchema(false);
+        executor = Executors.newFixedThreadPool(threads);
+        pending = new Semaphore(threads * 2);
+    }
+
+    public static void main(String[] args) {
+        System.exit(run(args));
+    }
+
+    static int run(String[] args) {
+        String format = "json";
+        String output = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<String> inputs = new ArrayList<String>();
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                if ("--format".equals(arg)) {
+                    format = args[++i];
+                } else if ("--output".equals(arg)) {
+                    output = args[++i];
+                } else if ("--threads".equals(arg)) {
+                    threads = Integer.parseInt(args[++i]);
+                } else if (arg.startsWith("--")) {
+                    return usage("unknown option " + arg);
+                } else {
+                    inputs.add(arg);
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            return usage("invalid arguments");
+        }
+        if (inputs.isEmpty()) {
+            return usage("no input given");
+        }
+        if (!"json".equals(format) && !"junit".equals(format)) {
+            return usage("unknown format " + format);
+        }
+        if (threads < 1) {
+            return usage("--threads must be at least 1");
+        }
+
+        ValidatorCli cli = new ValidatorCli(threads);
+        try {
+            long start = System.nanoTime();
+            for (String input : inputs) {
+                cli.add(Paths.get(input));
+            }
+            BulkValidationReport report = cli.collect();
+            report.setTime(millisSince(start));
+
+            OutputStream out = output == null ? System.out : new FileOutputStream(output);
+            try {
+                if ("junit".equals(format)) {
+                    writeJUnit(report, out);
+                } else {
+                    Json.mapper().writerWithDefaultPrettyPrinter().writeValue(out, report);
+                }
+                out.flush();
+            } finally {
+                if (output != null) {
+                    out.close();
+                }
+            }
+
+            System.err.println(report.getFiles() + " specs validated, " + report.getFailures() + " failed in " + report.getTime() + " ms");
+            return report.getFailures() == 0 ? EXIT_VALID : EXIT_INVALID;
+        } catch (Exception e) {
+            System.err.println("validation failed: " + e.getMessage());
+            return EXIT_ERROR;
+        } finally {
+            cli.executor.shutdownNow();
+        }
+    }
+
+    static int usage(String message) {
+        System.err.println(message);
+        System.err.println("usage: ValidatorCli [--format json|junit] [--output file] [--threads n] path...");
+        return EXIT_ERROR;
+    }
+
+    void add(Path path) throws IOException {
+        if (Files.isDirectory(path)) {
+            addDirectory(path);
+            return;
+        }
+        String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".zip") || name.endsWith(".jar")) {
+            addZip(path);
+        } else if (name.endsWith(".tar") || name.endsWith(".tar.gz") || name.endsWith(".tgz")) {
+            addTar(path, !name.endsWith(".tar"));
+        } else if (Files.isRegularFile(path)) {
+            acquire();
+            submit(new SpecTask(service, path.toString(), path, null));
+        } else {
+            throw new IOException("can't read " + path);
+        }
+    }
+
+    void addDirectory(Path dir) throws IOException {
+        final List<Path> files = new ArrayList<Path>();
+        Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (attrs.isRegularFile() && isSpec(file.toString())) {
+                    files.add(file);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        // walk order depends on the file system, sort so reports are stable
+        Collections.sort(files);
+        for (Path file : files) {
+            acquire();
+            submit(new SpecTask(service, file.toString(), file, null));
+        }
+    }
+
+    void addZip(Path archive) throws IOException {
+        ZipFile zip = new ZipFile(archive.toFile());
+        try {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                if (!entry.isDirectory() && isSpec(entry.getName())) {
+                    acquire();
+                    InputStream is = zip.getInputStream(entry);
+                    try {
+                        submit(new SpecTask(service, archive + "!/" + entry.getName(), null, IOUtils.toString(is, "UTF-8")));
+                    } finally {
+                        is.close();
+                    }
+                }
+            }
+        } finally {
+            zip.close();
+        }
+    }
+
+    void addTar(Path archive, boolean gzip) throws IOException {
+        InputStream is = new BufferedInputStream(Files.newInputStream(archive));
+        if (gzip) {
+            is = new GZIPInputStream(is);
+        }
+        TarArchiveInputStream tar = new TarArchiveInputStream(is);
+        try {
+            TarArchiveEntry entry;
+            while ((entry = tar.getNextTarEntry()) != null) {
+                if (entry.isFile() && isSpec(entry.getName())) {
+                    acquire();
+                    submit(new SpecTask(service, archive + "!/" + entry.getName(), null, IOUtils.toString(tar, "UTF-8")));
+                }
+            }
+        } finally {
+            tar.close();
+        }
+    }
+
+    /**
+     * Waits for a free slot, call before reading the next spec into memory.  {@link #submit} releases it
+     * once that spec has been validated.
+     */
+    void acquire() throws IOException {
+        try {
+            pending.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for a validation thread");
+        }
+    }
+
+    void submit(final SpecTask task) {
+        names.add(task.name);
+        results.add(executor.submit(new Callable<FileValidationResult>() {
+            @Override
+            public FileValidationResult call() {
+                try {
+                    return task.call();
+                } finally {
+                    pending.release();
+                }
+            }
+        }));
+    }
+
+    BulkValidationReport collect() throws InterruptedException {
+        BulkValidationReport report = new BulkValidationReport();
+        for (int i = 0; i < results.size(); i++) {
+            try {
+                report.addResult(results.get(i).get());
+            } catch (ExecutionException e) {
+                // whatever SpecTask didn't catch fails only its own file
+                FileValidationResult result = new FileValidationResult();
+                result.setFile(names.get(i));
+                result.setError(errorMessage(e.getCause()));
+                result.setValid(false);
+                report.addResult(result);
+            }
+        }
+        return report;
+    }
+
+    static String errorMessage(Throwable e) {
+        return e.getMessage() != null ? e.getClass().getSimpleName() + ": " + e.getMessage() : e.getClass().getSimpleName();
+    }
+
+    static boolean isSpec(String name) {
+        String lower = name.toLowerCase(Locale.ROOT);
+        return lower.endsWith(".json") || lower.endsWith(".yaml") || lower.endsWith(".yml");
+    }
+
+    static boolean isValid(ValidationResponse response) {
+        if (response.getSchemaValidationMessages() != null) {
+            for (SchemaValidationError error : response.getSchemaValidationMessages()) {
+                if ("error".equals(error.getLevel()) || "fatal".equals(error.getLevel())) {
+                    return false;
+                }
+            }
+        }
+        // same rule as the badge: unsupported values don't invalidate the spec
+        if (response.getMessages() != null) {
+            for (String message : response.getMessages()) {
+                if (!message.endsWith("is unsupported")) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    static long millisSince(long start) {
+        return (System.nanoTime() - start) / 1000000;
+    }
+
+    static void writeJUnit(BulkValidationReport report, OutputStream out) throws XMLStreamException {
+        int errors = 0;
+        for (FileValidationResult result : report.getResults()) {
+            if (result.getError() != null) {
+                errors++;
+            }
+        }
+
+        XMLStreamWriter xml = XMLOutputFactory.newInstance().createXMLStreamWriter(out, "UTF-8");
+        xml.writeStartDocument("UTF-8", "1.0");
+        xml.writeCharacters("\n");
+        xml.writeStartElement("testsuite");
+        xml.writeAttribute("name", SUITE_NAME);
+        xml.writeAttribute("tests", String.valueOf(report.getFiles()));
+        xml.writeAttribute("failures", String.valueOf(report.getFailures() - errors));
+        xml.writeAttribute("errors", String.valueOf(errors));
+        xml.writeAttribute("time", seconds(report.getTime()));
+        xml.writeCharacters("\n");
+
+        for (FileValidationResult result : report.getResults()) {
+            xml.writeCharacters("  ");
+            xml.writeStartElement("testcase");
+            xml.writeAttribute("classname", SUITE_NAME);
+            xml.writeAttribute("name", result.getFile());
+            xml.writeAttribute("time", seconds(result.getTime()));
+            if (result.getError() != null) {
+                xml.writeStartElement("error");
+                xml.writeAttribute("message", result.getError());
+                xml.writeEndElement();
+            } else if (!result.isValid()) {
+                List<String> problems = describe(result.getResponse());
+                xml.writeStartElement("failure");
+                xml.writeAttribute("message", problems.size() + " problem(s)");
+                StringBuilder text = new StringBuilder();
+                for (String problem : problems) {
+                    text.append(problem).append('\n');
+                }
+                xml.writeCharacters(text.toString());
+                xml.writeEndElement();
+            }
+            xml.writeEndElement();
+            xml.writeCharacters("\n");
+        }
+
+        xml.writeEndElement();
+        xml.writeCharacters("\n");
+        xml.writeEndDocument();
+        xml.flush();
+    }
+
+    static List<String> describe(ValidationResponse response) {
+        List<String> problems = new ArrayList<String>();
+        if (response.getMessages() != null) {
+            problems.addAll(response.getMessages());
+        }
+        if (response.getSchemaValidationMessages() != null) {
+            for (SchemaValidationError error : response.getSchemaValidationMessages()) {
+                String pointer = error.getInstance() != null ? error.getInstance().getPointer() : null;
+                problems.add(error.getLevel() + ": " + (pointer != null && !pointer.isEmpty() ? pointer + ": " : "") + error.getMessage());
+            }
+        }
+        return problems;
+    }
+
+    static String seconds(long millis) {
+        return String.format(Locale.ROOT, "%.3f", millis / 1000.0);
+    }
+
+    static class SpecTask implements Callable<FileValidationResult> {
+        private final ValidatorService service;
+        private final String name;
+        private final Path path;
+        private final String content;
+
+        SpecTask(ValidatorService service, String name, Path path, String content) {
+            this.service = service;
+            this.name = name;
+            this.path = path;
+            this.content = content;
+        }
+
+        @Override
+        public FileValidationResult call() {
+            FileValidationResult result = new FileValidationResult();
+            result.setFile(name);
+            long start = System.nanoTime();
+            try {
+                String spec = content != null ? content : new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+                ValidationResponse response = service.debugByContent(spec);
+                result.setResponse(response);
+                result.setValid(isValid(response));
+            } catch (Exception | StackOverflowError | LinkageError e) {
+                // deeply nested input overflows the parser's stack, report it against this spec only
+                result.setError(errorMessage(e));
+                result.setValid(false);
+            }
+            result.setTime(millisSince(start));
+            return result;
+        }
+    }
+}
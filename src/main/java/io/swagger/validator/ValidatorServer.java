@@ -0,0 +1,94 @@
+package io.swagger.validator;
+
+import io.swagger.validator.util.ApiOriginFilter;
+import io.swagger.validator.util.JacksonJsonProvider;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.StatisticsHandler;
+import org.eclipse.jetty.servlet.FilterHolder;
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.servlet.ServletHolder;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.glassfish.jersey.servlet.ServletContainer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.DispatcherType;
+import java.util.EnumSet;
+
+/**
+ * Runs the validator on an embedded Jetty server, without a WAR or web.xml.  Resources and providers are
+ * registered explicitly so Jersey does no classpath scanning at start-up.
+ * <p>
+ * Configured from the environment:
+ * <ul>
+ * <li>PORT - HTTP port, defaults to 8080</li>
+ * <li>SWAGGER_BASE_PATH - path the validator is mounted on, defaults to the root</li>
+ * <li>JETTY_MIN_THREADS / JETTY_MAX_THREADS - request thread pool size, default 8 / 200</li>
+ * </ul>
+ */
+public class ValidatorServer {
+    static Logger LOGGER = LoggerFactory.getLogger(ValidatorServer.class);
+
+    public static void main(String[] args) throws Exception {
+        int port = getInt("PORT", 8080);
+        String basePath = getBasePath(System.getenv("SWAGGER_BASE_PATH"));
+
+        QueuedThreadPool threadPool = new QueuedThreadPool(
+                getInt("JETTY_MAX_THREADS", 200),
+                getInt("JETTY_MIN_THREADS", 8));
+        threadPool.setName("validator");
+
+        Server server = new Server(threadPool);
+        ServerConnector connector = new ServerConnector(server);
+        connector.setPort(port);
+        server.addConnector(connector);
+
+        ResourceConfig config = new ResourceConfig()
+                .registerClasses(new ValidatorApplication().getClasses())
+                .register(JacksonJsonProvider.class);
+
+        ServletContextHandler context = new ServletContextHandler(ServletContextHandler.NO_SESSIONS);
+        context.setContextPath("/");
+        context.addServlet(new ServletHolder(new ServletContainer(config)), basePath + "/*");
+        context.addFilter(new FilterHolder(new ApiOriginFilter()), "/*", EnumSet.of(DispatcherType.REQUEST));
+        // stop gracefully on SIGTERM: stop accepting, then give in-flight validations time to finish
+        StatisticsHandler statistics = new StatisticsHandler();
+        statistics.setHandler(context);
+        server.setHandler(statistics);
+        server.setStopTimeout(20000);
+        server.setStopAtShutdown(true);
+
+        server.start();
+        LOGGER.info("validator listening on port " + port + ", basePath: " + (basePath.isEmpty() ? "/" : basePath));
+        server.join();
+    }
+
+    static String getBasePath(String basePath) {
+        if (basePath == null) {
+            return "";
+        }
+        basePath = basePath.trim();
+        while (basePath.endsWith("/")) {
+            basePath = basePath.substring(0, basePath.length() - 1);
+        }
+        if (!basePath.isEmpty() && !basePath.startsWith("/")) {
+            basePath = "/" + basePath;
+        }
+        return basePath;
+    }
+
+    static int getInt(String name, int defaultValue) {
+        String value = System.getenv(name);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            LOGGER.warn("ignoring invalid " + name + ": " + value);
+            return defaultValue;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package io.swagger.validator.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+@Name("io.swagger.validator.Fetch")
+@Label("Remote Fetch")
+@Description("Download of a remote spec or schema")
+@Category({"Swagger", "Validator"})
+@Threshold("0 ms")
+@StackTrace(false)
+public class FetchEvent extends jdk.jfr.Event {
+    @Label("Host")
+    public String host;
+
+    @Label("Status Code")
+    public int status;
+
+    @Label("Bytes Read")
+    @DataAmount
+    public long bytes;
+}
@@ -0,0 +1,25 @@
+package io.swagger.validator.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+@Name("io.swagger.validator.Parse")
+@Label("Spec Parse")
+@Description("Reading spec contents into a JSON tree")
+@Category({"Swagger", "Validator"})
+@Threshold("0 ms")
+@StackTrace(false)
+public class ParseEvent extends jdk.jfr.Event {
+    @Label("Format")
+    public String format;
+
+    @Label("Characters")
+    public long length;
+
+    @Label("Node Count")
+    public int nodeCount;
+}
@@ -0,0 +1,19 @@
+package io.swagger.validator.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+@Name("io.swagger.validator.SchemaValidation")
+@Label("Schema Validation")
+@Description("JSON schema validation of a spec")
+@Category({"Swagger", "Validator"})
+@Threshold("0 ms")
+@StackTrace(false)
+public class SchemaValidationEvent extends jdk.jfr.Event {
+    @Label("Error Count")
+    public int errorCount;
+}
@@ -0,0 +1,22 @@
+package io.swagger.validator.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+@Name("io.swagger.validator.SwaggerParse")
+@Label("Swagger Parse")
+@Description("SwaggerParser run over spec contents")
+@Category({"Swagger", "Validator"})
+@Threshold("0 ms")
+@StackTrace(false)
+public class SwaggerParseEvent extends jdk.jfr.Event {
+    @Label("Message Count")
+    public int messageCount;
+
+    @Label("Success")
+    public boolean success;
+}
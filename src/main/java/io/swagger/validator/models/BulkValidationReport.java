@@ -0,0 +1,51 @@
+package io.swagger.validator.models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BulkValidationReport {
+    private int files;
+    private int failures;
+    private long time;
+    private List<FileValidationResult> results = new ArrayList<FileValidationResult>();
+
+    public void addResult(FileValidationResult result) {
+        this.results.add(result);
+        this.files++;
+        if (!result.isValid()) {
+            this.failures++;
+        }
+    }
+
+    public int getFiles() {
+        return files;
+    }
+
+    public void setFiles(int files) {
+        this.files = files;
+    }
+
+    public int getFailures() {
+        return failures;
+    }
+
+    public void setFailures(int failures) {
+        this.failures = failures;
+    }
+
+    public long getTime() {
+        return time;
+    }
+
+    public void setTime(long time) {
+        this.time = time;
+    }
+
+    public List<FileValidationResult> getResults() {
+        return results;
+    }
+
+    public void setResults(List<FileValidationResult> results) {
+        this.results = results;
+    }
+}
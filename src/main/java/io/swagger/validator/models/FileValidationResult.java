@@ -0,0 +1,49 @@
+package io.swagger.validator.models;
+
+public class FileValidationResult {
+    private String file;
+    private boolean valid;
+    private long time;
+    private String error;
+    private ValidationResponse response;
+
+    public String getFile() {
+        return file;
+    }
+
+    public void setFile(String file) {
+        this.file = file;
+    }
+
+    public boolean isValid() {
+        return valid;
+    }
+
+    public void setValid(boolean valid) {
+        this.valid = valid;
+    }
+
+    public long getTime() {
+        return time;
+    }
+
+    public void setTime(long time) {
+        this.time = time;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public ValidationResponse getResponse() {
+        return response;
+    }
+
+    public void setResponse(ValidationResponse response) {
+        this.response = response;
+    }
+}
@@ -2,6 +2,11 @@ package io.swagger.validator.services;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.fge.jackson.jsonpointer.JsonPointer;
+import com.github.fge.jsonschema.core.exceptions.ProcessingException;
+import com.github.fge.jsonschema.core.load.configuration.LoadingConfiguration;
 import com.github.fge.jsonschema.core.report.ListProcessingReport;
 import com.github.fge.jsonschema.core.report.LogLevel;
 import com.github.fge.jsonschema.core.report.ProcessingMessage;
@@ -12,9 +17,14 @@ import io.swagger.parser.SwaggerParser;
 import io.swagger.parser.util.SwaggerDeserializationResult;
 import io.swagger.util.Json;
 import io.swagger.util.Yaml;
+import io.swagger.validator.jfr.FetchEvent;
+import io.swagger.validator.jfr.ParseEvent;
+import io.swagger.validator.jfr.SchemaValidationEvent;
+import io.swagger.validator.jfr.SwaggerParseEvent;
 import io.swagger.validator.models.SchemaValidationError;
 import io.swagger.validator.models.ValidationResponse;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.CountingInputStream;
 import org.apache.http.HttpEntity;
 import org.apache.http.StatusLine;
 import org.apache.http.client.config.RequestConfig;
@@ -22,6 +32,7 @@ import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.conn.ssl.NoopHostnameVerifier;
 import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.entity.HttpEntityWrapper;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
 import org.apache.http.ssl.SSLContextBuilder;
@@ -41,6 +52,16 @@ import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 public class ValidatorService {
     static final String INVALID_VERSION = "Deprecated Swagger version.  Please visit http://swagger.io for information on upgrading to Swagger 2.0\"";
@@ -52,7 +73,12 @@ public class ValidatorService {
     static String CACHED_SCHEMA = null;
     static ObjectMapper JsonMapper = Json.mapper();
     static ObjectMapper YamlMapper = Yaml.mapper();
+    static ForkJoinPool VALIDATION_POOL = new ForkJoinPool();
+    static volatile CompiledSchema COMPILED_SCHEMA = null;
     private JsonSchema schema;
+    private boolean fetchSchema = true;
+    // specs larger than this many characters are validated subtree by subtree, negative disables it
+    private long parallelThreshold = Long.getLong("validator.parallelThreshold", 1024 * 1024);
 
     public void validateByUrl(HttpServletRequest request, HttpServletResponse response, String url) {
         LOGGER.info("validationUrl: " + url + ", forClient: " + getRemoteAddr(request));
@@ -129,7 +155,7 @@ public class ValidatorService {
         }
 
         // convert to a JsonNode
-        JsonNode schemaObject = JsonMapper.readTree(getSchema());
+        CompiledSchema compiled = getCompiledSchema();
         JsonNode spec = readNode(content);
         if (spec == null) {
             ProcessingMessage pm = new ProcessingMessage();
@@ -158,9 +184,7 @@ public class ValidatorService {
         }
 
         // do actual JSON schema validation
-        JsonSchemaFactory factory = JsonSchemaFactory.byDefault();
-        JsonSchema schema = factory.getJsonSchema(schemaObject);
-        ProcessingReport report = schema.validate(spec);
+        ProcessingReport report = validateSchema(compiled, spec, content.length());
         ListProcessingReport lp = new ListProcessingReport();
         lp.mergeWith(report);
 
@@ -178,18 +202,16 @@ public class ValidatorService {
             }
         }
 
-        java.util.Iterator<ProcessingMessage> it = lp.iterator();
-        while (it.hasNext()) {
-            ProcessingMessage pm = it.next();
-            output.addValidationMessage(new SchemaValidationError(pm.asJson()));
-        }
+        addValidationMessages(output, lp, spec);
         return output;
     }
 
     public ValidationResponse debugByContent(HttpServletRequest request, HttpServletResponse response, String content) throws Exception {
-        JsonNode schemaObject = JsonMapper.readTree(getSchema());
-        JsonSchemaFactory factory = JsonSchemaFactory.byDefault();
-        JsonSchema schema = factory.getJsonSchema(schemaObject);
+        return debugByContent(content);
+    }
+
+    public ValidationResponse debugByContent(String content) throws Exception {
+        CompiledSchema compiled = getCompiledSchema();
         ValidationResponse output = new ValidationResponse();
 
         JsonNode spec = readNode(content);
@@ -211,7 +233,7 @@ public class ValidatorService {
         }
 
         // do actual JSON schema validation
-        ProcessingReport report = schema.validate(spec);
+        ProcessingReport report = validateSchema(compiled, spec, content.length());
         ListProcessingReport lp = new ListProcessingReport();
         lp.mergeWith(report);
 
@@ -229,11 +251,7 @@ public class ValidatorService {
             }
         }
 
-        java.util.Iterator<ProcessingMessage> it = lp.iterator();
-        while (it.hasNext()) {
-            ProcessingMessage pm = it.next();
-            output.addValidationMessage(new SchemaValidationError(pm.asJson()));
-        }
+        addValidationMessages(output, lp, spec);
         return output;
     }
 
@@ -268,6 +286,11 @@ public class ValidatorService {
         if (CACHED_SCHEMA != null && (System.currentTimeMillis() - LAST_FETCH) < 600000) {
             return CACHED_SCHEMA;
         }
+        if (!fetchSchema) {
+            LAST_FETCH = System.currentTimeMillis();
+            CACHED_SCHEMA = getBundledSchema();
+            return CACHED_SCHEMA;
+        }
         try {
             LOGGER.debug("returning cached schema");
             LAST_FETCH = System.currentTimeMillis();
@@ -275,22 +298,57 @@ public class ValidatorService {
             return CACHED_SCHEMA;
         } catch (Exception e) {
             LOGGER.warn("fetching schema from GitHub");
-            InputStream is = this.getClass().getClassLoader().getResourceAsStream(SCHEMA_FILE);
-            BufferedReader in = new BufferedReader(
-                    new InputStreamReader(is));
-
-            String inputLine;
-            StringBuilder contents = new StringBuilder();
-            while ((inputLine = in.readLine()) != null) {
-                contents.append(inputLine);
-            }
-            in.close();
             LAST_FETCH = System.currentTimeMillis();
-            CACHED_SCHEMA = contents.toString();
+            CACHED_SCHEMA = getBundledSchema();
             return CACHED_SCHEMA;
         }
     }
 
+    /**
+     * Returns the schema compiled once per fetched schema.json, so every request and CLI thread shares the
+     * same validators instead of re-parsing and re-compiling it.
+     */
+    private CompiledSchema getCompiledSchema() throws Exception {
+        String contents = getSchema();
+        CompiledSchema compiled = COMPILED_SCHEMA;
+        if (compiled != null && compiled.source.equals(contents)) {
+            return compiled;
+        }
+        synchronized (ValidatorService.class) {
+            compiled = COMPILED_SCHEMA;
+            if (compiled == null || !compiled.source.equals(contents)) {
+                compiled = new CompiledSchema(contents, JsonMapper.readTree(contents));
+                COMPILED_SCHEMA = compiled;
+            }
+            return compiled;
+        }
+    }
+
+    private String getBundledSchema() throws IOException {
+        InputStream is = this.getClass().getClassLoader().getResourceAsStream(SCHEMA_FILE);
+        BufferedReader in = new BufferedReader(
+                new InputStreamReader(is));
+
+        String inputLine;
+        StringBuilder contents = new StringBuilder();
+        while ((inputLine = in.readLine()) != null) {
+            contents.append(inputLine);
+        }
+        in.close();
+        return contents.toString();
+    }
+
+    public boolean isFetchSchema() {
+        return fetchSchema;
+    }
+
+    /**
+     * When false the bundled schema.json is always used instead of fetching the latest one from swagger.io.
+     */
+    public void setFetchSchema(boolean fetchSchema) {
+        this.fetchSchema = fetchSchema;
+    }
+
     private CloseableHttpClient getCarelessHttpClient() {
         CloseableHttpClient httpClient = null;
 
@@ -329,18 +387,37 @@ public class ValidatorService {
 
 
         if (httpClient != null) {
-            final CloseableHttpResponse response = httpClient.execute(getMethod);
+            FetchEvent event = new FetchEvent();
+            event.begin();
+            CloseableHttpResponse response = null;
+            CountingInputStream counter = null;
 
             try {
-
+                response = httpClient.execute(getMethod);
                 HttpEntity entity = response.getEntity();
                 StatusLine line = response.getStatusLine();
+                event.status = line.getStatusCode();
                 if(line.getStatusCode() > 299 || line.getStatusCode() < 200) {
                     throw new IOException("failed to read swagger with code " + line.getStatusCode());
                 }
-                return EntityUtils.toString(entity, "UTF-8");
+                // count the body as it is read instead of re-encoding it afterwards
+                final CountingInputStream body = counter = new CountingInputStream(entity.getContent());
+                return EntityUtils.toString(new HttpEntityWrapper(entity) {
+                    @Override
+                    public InputStream getContent() {
+                        return body;
+                    }
+                }, "UTF-8");
             } finally {
-                response.close();
+                event.end();
+                if (event.shouldCommit()) {
+                    event.host = getMethod.getURI().getHost();
+                    event.bytes = counter != null ? counter.getByteCount() : 0;
+                    event.commit();
+                }
+                if (response != null) {
+                    response.close();
+                }
                 httpClient.close();
             }
         } else {
@@ -357,19 +434,365 @@ public class ValidatorService {
     }
 
     private SwaggerDeserializationResult readSwagger(String content) throws IllegalArgumentException {
-        SwaggerParser parser = new SwaggerParser();
-        return parser.readWithInfo(content);
+        SwaggerParseEvent event = new SwaggerParseEvent();
+        event.begin();
+        SwaggerDeserializationResult result = null;
+        try {
+            SwaggerParser parser = new SwaggerParser();
+            result = parser.readWithInfo(content);
+            return result;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.success = result != null && result.getSwagger() != null;
+                event.messageCount = result != null && result.getMessages() != null ? result.getMessages().size() : 0;
+                event.commit();
+            }
+        }
+    }
+
+    private ProcessingReport validateSchema(CompiledSchema compiled, JsonNode spec, int size) throws Exception {
+        SchemaValidationEvent event = new SchemaValidationEvent();
+        event.begin();
+        ProcessingReport report = null;
+        try {
+            if (parallelThreshold >= 0 && size > parallelThreshold && spec.isObject() && compiled.pathItem != null
+                    && VALIDATION_POOL.getParallelism() > 1) {
+                report = validateSubtrees(compiled, (ObjectNode) spec);
+            } else {
+                report = compiled.root.validate(spec);
+            }
+            return report;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                if (report != null) {
+                    for (ProcessingMessage pm : report) {
+                        if (pm.getLogLevel().compareTo(LogLevel.ERROR) >= 0) {
+                            event.errorCount++;
+                        }
+                    }
+                }
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Validates the rest of the document against the full schema, and each path item and model definition
+     * against its sub-schema, all on the fork-join pool.  The merged messages are then cut back to those a
+     * single pass would report, see {@link #stopAtFirstError}.
+     */
+    private ProcessingReport validateSubtrees(CompiledSchema compiled, ObjectNode spec) throws Exception {
+        ObjectNode remainder = JsonNodeFactory.instance.objectNode();
+        remainder.setAll(spec);
+        List<SubtreeValidation> tasks = new ArrayList<SubtreeValidation>();
+        tasks.add(new SubtreeValidation(compiled.root, remainder, JsonPointer.empty()));
+
+        JsonNode paths = spec.get("paths");
+        if (paths != null && paths.isObject()) {
+            ObjectNode rest = remainder.putObject("paths");
+            Iterator<Map.Entry<String, JsonNode>> it = paths.fields();
+            while (it.hasNext()) {
+                Map.Entry<String, JsonNode> entry = it.next();
+                if (entry.getKey().startsWith("/")) {
+                    tasks.add(new SubtreeValidation(compiled.pathItem, entry.getValue(),
+                            JsonPointer.empty().append("paths").append(entry.getKey())));
+                } else {
+                    rest.set(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+
+        JsonNode definitions = spec.get("definitions");
+        if (definitions != null && definitions.isObject()) {
+            remainder.putObject("definitions");
+            Iterator<Map.Entry<String, JsonNode>> it = definitions.fields();
+            while (it.hasNext()) {
+                Map.Entry<String, JsonNode> entry = it.next();
+                tasks.add(new SubtreeValidation(compiled.model, entry.getValue(),
+                        JsonPointer.empty().append("definitions").append(entry.getKey())));
+            }
+        }
+
+        List<ProcessingMessage> messages = new ArrayList<ProcessingMessage>();
+        for (Future<ProcessingReport> future : VALIDATION_POOL.invokeAll(tasks)) {
+            try {
+                for (ProcessingMessage pm : future.get()) {
+                    messages.add(pm);
+                }
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof ProcessingException) {
+                    throw (ProcessingException) e.getCause();
+                }
+                throw e;
+            }
+        }
+        return stopAtFirstError(spec, messages);
+    }
+
+    /**
+     * Keeps the messages a single pass over {@code spec} would have produced.  The validator visits object
+     * members in sorted order and, once the report holds an error, still checks the nodes it goes on to
+     * visit but no longer descends into them.  Every subtree was validated on its own, so past the first
+     * error only messages on the later siblings of the failing node and of its ancestors are kept.
+     */
+    static ProcessingReport stopAtFirstError(JsonNode spec, List<ProcessingMessage> messages)
+            throws ProcessingException {
+        TraversalOrder order = new TraversalOrder(spec);
+        List<String> first = null;
+        for (ProcessingMessage pm : messages) {
+            if (pm.getLogLevel().compareTo(LogLevel.ERROR) >= 0) {
+                List<String> tokens = DocumentOrder.tokens(pm.asJson());
+                if (first == null || order.compare(tokens, first) < 0) {
+                    first = tokens;
+                }
+            }
+        }
+
+        ListProcessingReport report = new ListProcessingReport();
+        for (ProcessingMessage pm : messages) {
+            List<String> tokens = DocumentOrder.tokens(pm.asJson());
+            boolean visited = first == null || order.compare(tokens, first) <= 0
+                    || (tokens.size() <= first.size()
+                        && tokens.subList(0, tokens.size() - 1).equals(first.subList(0, tokens.size() - 1)));
+            if (!visited) {
+                continue;
+            }
+            switch (pm.getLogLevel()) {
+                case DEBUG:
+                    report.debug(pm);
+                    break;
+                case INFO:
+                    report.info(pm);
+                    break;
+                case WARNING:
+                    report.warn(pm);
+                    break;
+                default:
+                    report.error(pm);
+            }
+        }
+        return report;
+    }
+
+    /**
+     * Adds the report's messages ordered by where they point in the spec, so single-pass and subtree
+     * validation produce the same list.
+     */
+    private void addValidationMessages(ValidationResponse output, ProcessingReport report, JsonNode spec) {
+        List<JsonNode> messages = new ArrayList<JsonNode>();
+        for (ProcessingMessage pm : report) {
+            messages.add(pm.asJson());
+        }
+        Collections.sort(messages, new DocumentOrder(spec));
+        for (JsonNode message : messages) {
+            output.addValidationMessage(new SchemaValidationError(message));
+        }
+    }
+
+    public long getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    public void setParallelThreshold(long parallelThreshold) {
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    static class CompiledSchema {
+        final String source;
+        final JsonSchema root;
+        // sub-schemas used to split large specs, null when the schema doesn't have them
+        final JsonSchema pathItem;
+        final JsonSchema model;
+
+        CompiledSchema(String source, JsonNode node) throws ProcessingException {
+            JsonSchemaFactory factory = JsonSchemaFactory.byDefault();
+            if (node.has("id")) {
+                // $refs are resolved against the schema id, preload it so they never go to the network
+                factory = JsonSchemaFactory.newBuilder()
+                        .setLoadingConfiguration(LoadingConfiguration.newBuilder().preloadSchema(node).freeze())
+                        .freeze();
+            }
+            this.source = source;
+            this.root = factory.getJsonSchema(node);
+            if (node.at("/definitions/pathItem").isObject() && node.at("/definitions/schema").isObject()) {
+                this.pathItem = factory.getJsonSchema(node, "/definitions/pathItem");
+                this.model = factory.getJsonSchema(node, "/definitions/schema");
+            } else {
+                LOGGER.debug("schema has no sub-schemas to split on, large specs are validated in one pass");
+                this.pathItem = null;
+                this.model = null;
+            }
+        }
+    }
+
+    static class SubtreeValidation implements Callable<ProcessingReport> {
+        private final JsonSchema schema;
+        private final JsonNode node;
+        private final JsonPointer pointer;
+
+        SubtreeValidation(JsonSchema schema, JsonNode node, JsonPointer pointer) {
+            this.schema = schema;
+            this.node = node;
+            this.pointer = pointer;
+        }
+
+        @Override
+        public ProcessingReport call() throws ProcessingException {
+            ProcessingReport report = schema.validate(node);
+            // instance pointers are relative to the subtree, rebase them onto the document
+            for (ProcessingMessage pm : report) {
+                JsonNode instance = pm.asJson().get("instance");
+                if (instance != null && instance.get("pointer") != null) {
+                    ObjectNode rebased = JsonNodeFactory.instance.objectNode();
+                    rebased.put("pointer", pointer.toString() + instance.get("pointer").asText());
+                    pm.put("instance", rebased);
+                }
+            }
+            return report;
+        }
+    }
+
+    /**
+     * Orders messages by the position of their instance pointer in the spec: object members in the order
+     * they appear, array items by index, parents before children.  The sort is stable, so messages for the
+     * same location keep the validator's order.
+     */
+    static class DocumentOrder implements Comparator<JsonNode> {
+        private final JsonNode spec;
+
+        DocumentOrder(JsonNode spec) {
+            this.spec = spec;
+        }
+
+        @Override
+        public int compare(JsonNode a, JsonNode b) {
+            List<String> left = tokens(a);
+            List<String> right = tokens(b);
+            JsonNode node = spec;
+            for (int i = 0; i < left.size() && i < right.size(); i++) {
+                String l = left.get(i);
+                String r = right.get(i);
+                if (!l.equals(r)) {
+                    int cmp = Integer.compare(position(node, l), position(node, r));
+                    return cmp != 0 ? cmp : l.compareTo(r);
+                }
+                node = child(node, l);
+            }
+            return Integer.compare(left.size(), right.size());
+        }
+
+        private static List<String> tokens(JsonNode message) {
+            List<String> tokens = new ArrayList<String>();
+            JsonNode instance = message.get("instance");
+            String pointer = instance != null && instance.get("pointer") != null ? instance.get("pointer").asText() : "";
+            if (pointer.isEmpty()) {
+                return tokens;
+            }
+            for (String token : pointer.substring(1).split("/", -1)) {
+                tokens.add(token.replace("~1", "/").replace("~0", "~"));
+            }
+            return tokens;
+        }
+
+        private static JsonNode child(JsonNode node, String token) {
+            if (node == null) {
+                return null;
+            }
+            if (node.isArray()) {
+                try {
+                    return node.get(Integer.parseInt(token));
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+            return node.get(token);
+        }
+
+        private static int position(JsonNode node, String token) {
+            if (node != null && node.isArray()) {
+                try {
+                    return Integer.parseInt(token);
+                } catch (NumberFormatException e) {
+                    return Integer.MAX_VALUE;
+                }
+            }
+            if (node != null && node.isObject()) {
+                int index = 0;
+                Iterator<String> names = node.fieldNames();
+                while (names.hasNext()) {
+                    if (names.next().equals(token)) {
+                        return index;
+                    }
+                    index++;
+                }
+            }
+            return Integer.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Orders instance pointers the way the validator visits them: object members sorted by name, array
+     * items by index, parents before children.
+     */
+    static class TraversalOrder {
+        private final JsonNode spec;
+
+        TraversalOrder(JsonNode spec) {
+            this.spec = spec;
+        }
+
+        int compare(List<String> left, List<String> right) {
+            JsonNode node = spec;
+            for (int i = 0; i < left.size() && i < right.size(); i++) {
+                String l = left.get(i);
+                String r = right.get(i);
+                if (!l.equals(r)) {
+                    if (node != null && node.isArray()) {
+                        return Integer.compare(DocumentOrder.position(node, l), DocumentOrder.position(node, r));
+                    }
+                    return l.compareTo(r);
+                }
+                node = DocumentOrder.child(node, l);
+            }
+            return Integer.compare(left.size(), right.size());
+        }
     }
 
     private JsonNode readNode(String text) {
+        ParseEvent event = new ParseEvent();
+        event.begin();
+        JsonNode node = null;
+        boolean json = text.trim().startsWith("{");
         try {
-            if (text.trim().startsWith("{")) {
-                return JsonMapper.readTree(text);
+            if (json) {
+                node = JsonMapper.readTree(text);
             } else {
-                return YamlMapper.readTree(text);
+                node = YamlMapper.readTree(text);
             }
+            return node;
         } catch (IOException e) {
             return null;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.format = json ? "json" : "yaml";
+                event.length = text.length();
+                event.nodeCount = countNodes(node);
+                event.commit();
+            }
+        }
+    }
+
+    private int countNodes(JsonNode node) {
+        if (node == null) {
+            return 0;
+        }
+        int count = 1;
+        for (JsonNode child : node) {
+            count += countNodes(child);
         }
+        return count;
     }
 }
\ No newline at end of file
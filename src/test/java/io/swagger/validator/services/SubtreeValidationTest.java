@@ -0,0 +1,73 @@
+package io.swagger.validator.services;
+
+import io.swagger.util.Json;
+import io.swagger.validator.models.ValidationResponse;
+import org.apache.commons.io.IOUtils;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Validates each fixture in a single pass and split into subtrees, and checks both give the same response.
+ */
+public class SubtreeValidationTest {
+    private static ForkJoinPool defaultPool;
+
+    @BeforeClass
+    public static void useParallelPool() {
+        // the split is skipped on a single-CPU pool, make sure it runs wherever the tests do
+        defaultPool = ValidatorService.VALIDATION_POOL;
+        ValidatorService.VALIDATION_POOL = new ForkJoinPool(2);
+    }
+
+    @AfterClass
+    public static void restorePool() {
+        ValidatorService.VALIDATION_POOL.shutdown();
+        ValidatorService.VALIDATION_POOL = defaultPool;
+    }
+
+    @Test
+    public void validSpec() throws Exception {
+        assertNull(validate("valid.json").getSchemaValidationMessages());
+    }
+
+    @Test
+    public void errorsInPaths() throws Exception {
+        assertFalse(validate("invalid-paths.json").getSchemaValidationMessages().isEmpty());
+    }
+
+    @Test
+    public void errorsInDefinitions() throws Exception {
+        assertFalse(validate("invalid-definitions.json").getSchemaValidationMessages().isEmpty());
+    }
+
+    @Test
+    public void errorsAtTopLevel() throws Exception {
+        assertFalse(validate("invalid-root.json").getSchemaValidationMessages().isEmpty());
+    }
+
+    @Test
+    public void escapedKeys() throws Exception {
+        assertFalse(validate("escaped-keys.json").getSchemaValidationMessages().isEmpty());
+    }
+
+    private ValidationResponse validate(String fixture) throws Exception {
+        String content = IOUtils.toString(getClass().getClassLoader().getResourceAsStream("specs/" + fixture), "UTF-8");
+        ValidatorService service = new ValidatorService();
+        service.setFetchSchema(false);
+
+        service.setParallelThreshold(-1);
+        ValidationResponse single = service.debugByContent(content);
+        service.setParallelThreshold(0);
+        ValidationResponse split = service.debugByContent(content);
+
+        assertEquals(Json.pretty(single), Json.pretty(split));
+        return single;
+    }
+}